@@ -1,12 +1,18 @@
 public class Customer {
     private String name;
     private double balance;
+    private String address;
     public Customer(String name, double balance) {
+        this(name, balance, null);
+    }
+    public Customer(String name, double balance, String address) {
         this.name = name;
         this.balance = balance;
+        this.address = address;
     }
     public String getName() { return name; }
     public double getBalance() { return balance; }
+    public String getAddress() { return address; }
     public void deduct(double amount) { this.balance -= amount; }
     public void addBalance(double amount) { this.balance += amount; }
-} 
\ No newline at end of file
+}
@@ -16,6 +16,7 @@ public class ExpirableProduct extends Product {
     public boolean isExpirable() { return true; }
     @Override
     public boolean isShippable() { return shippable; }
+    public LocalDate getExpiryDate() { return expiryDate; }
     @Override
     public boolean isExpired() { return expiryDate.isBefore(LocalDate.now()); }
     @Override
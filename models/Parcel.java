@@ -0,0 +1,24 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class Parcel {
+    private String destination;
+    private double maxWeight;
+    private double weight;
+    private List<Shippable> items = new ArrayList<>();
+
+    public Parcel(String destination, double maxWeight) {
+        this.destination = destination;
+        this.maxWeight = maxWeight;
+    }
+
+    public boolean fits(Shippable item) { return weight + item.getWeight() <= maxWeight; }
+    public void add(Shippable item) {
+        items.add(item);
+        weight += item.getWeight();
+    }
+
+    public String getDestination() { return destination; }
+    public double getWeight() { return weight; }
+    public List<Shippable> getItems() { return items; }
+}
@@ -0,0 +1,26 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class Receipt {
+    private List<CartItem> items = new ArrayList<>();
+    private double subtotal;
+    private double shipping;
+    private double total;
+    private double customerBalance;
+
+    public Receipt(List<CartItem> items, double subtotal, double shipping, double total, double customerBalance) {
+        for (CartItem item : items) {
+            this.items.add(new CartItem(item.product, item.quantity));
+        }
+        this.subtotal = subtotal;
+        this.shipping = shipping;
+        this.total = total;
+        this.customerBalance = customerBalance;
+    }
+
+    public List<CartItem> getItems() { return items; }
+    public double getSubtotal() { return subtotal; }
+    public double getShipping() { return shipping; }
+    public double getTotal() { return total; }
+    public double getCustomerBalance() { return customerBalance; }
+}
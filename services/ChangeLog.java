@@ -0,0 +1,167 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only journal of state changes: one record per line, tab-separated escaped fields,
+ * null as \N. Each commit is its records followed by COMMIT with a sequence number and
+ * timestamp; beginBatch/commitBatch group a thread's records into one commit.
+ */
+public class ChangeLog implements Closeable {
+    public static final String LOG = "LOG";
+    public static final String PRODUCT_ADDED = "PRODUCT_ADDED";
+    public static final String CUSTOMER_ADDED = "CUSTOMER_ADDED";
+    public static final String STOCK = "STOCK";
+    public static final String BALANCE = "BALANCE";
+    public static final String CHECKOUT = "CHECKOUT";
+    public static final String COMMIT = "COMMIT";
+    public static final String SEPARATOR = "\t";
+    private static final String NULL_FIELD = "\\N";
+
+    private final Path path;
+    private final String logId = UUID.randomUUID().toString();
+    private final FileChannel channel;
+    private final ThreadLocal<List<String>> batch = new ThreadLocal<>();
+    private long sequence;
+
+    /** Opens a new log at path, overwriting any file already there. */
+    public ChangeLog(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        append(record(LOG, logId));
+    }
+
+    public static String record(String type, Object... fields) {
+        StringBuilder sb = new StringBuilder(type);
+        for (Object field : fields) {
+            sb.append(SEPARATOR).append(field == null ? NULL_FIELD : escape(field.toString()));
+        }
+        return sb.toString();
+    }
+
+    /** Splits a line written by this log back into its unescaped fields. */
+    public static String[] parse(String line) {
+        String[] fields = line.split(SEPARATOR, -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = NULL_FIELD.equals(fields[i]) ? null : unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i == value.length()) {
+                throw new IllegalArgumentException("Dangling escape in change log field '" + value + "'");
+            }
+            switch (value.charAt(i)) {
+                case '\\': sb.append('\\'); break;
+                case 't': sb.append('\t'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                default: throw new IllegalArgumentException("Bad escape in change log field '" + value + "'");
+            }
+        }
+        return sb.toString();
+    }
+
+    public void beginBatch() {
+        if (batch.get() != null) {
+            throw new IllegalStateException("Change log batch already open on this thread");
+        }
+        batch.set(new ArrayList<>());
+    }
+
+    public void commitBatch() {
+        List<String> records = batch.get();
+        if (records == null) {
+            throw new IllegalStateException("No change log batch open on this thread");
+        }
+        batch.remove();
+        write(records);
+    }
+
+    public void append(String... records) {
+        List<String> open = batch.get();
+        if (open != null) {
+            open.addAll(Arrays.asList(records));
+        } else {
+            write(Arrays.asList(records));
+        }
+    }
+
+    private synchronized void write(List<String> records) {
+        if (records.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        for (String record : records) {
+            sb.append(record).append('\n');
+        }
+        sb.append(record(COMMIT, ++sequence, System.currentTimeMillis())).append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to change log " + path, e);
+        }
+        notifyAll();
+    }
+
+    public synchronized long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read change log size " + path, e);
+        }
+    }
+
+    /** Blocks until the log grows past position or the timeout elapses. */
+    public synchronized void awaitAppend(long position, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (size() <= position && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+
+    public synchronized long getSequence() { return sequence; }
+    public Path getPath() { return path; }
+    public String getLogId() { return logId; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        notifyAll();
+    }
+}
@@ -1,17 +1,61 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 public class CheckoutService {
     private static final double SHIPPING_FEE = 30.0;
     private ProductService productService;
     private ShippingService shippingService;
+    private ShipmentScheduler shipmentScheduler;
+    private IdempotencyCache idempotencyCache;
+    private ChangeLog changeLog;
     
     public CheckoutService(ProductService productService, ShippingService shippingService) {
+        this(productService, shippingService, null);
+    }
+    
+    public CheckoutService(ProductService productService, ShippingService shippingService, ShipmentScheduler shipmentScheduler) {
+        this(productService, shippingService, shipmentScheduler, null);
+    }
+    
+    public CheckoutService(ProductService productService, ShippingService shippingService,
+                           ShipmentScheduler shipmentScheduler, IdempotencyCache idempotencyCache) {
         this.productService = productService;
         this.shippingService = shippingService;
+        this.shipmentScheduler = shipmentScheduler;
+        this.idempotencyCache = idempotencyCache;
+    }
+    
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
     }
     
-    public void checkout(Customer customer, Cart cart) {
+    public Receipt checkout(String idempotencyKey, Customer customer, Cart cart) {
+        if (idempotencyCache == null) {
+            throw new IllegalStateException("Idempotent checkout requires an IdempotencyCache");
+        }
+        return idempotencyCache.getOrCompute(idempotencyKey, fingerprint(customer, cart),
+                () -> checkout(customer, cart), this::isRejectedBeforeProcessing);
+    }
+    
+    // Names are matched case-insensitively elsewhere, so the fingerprint is too
+    private String fingerprint(Customer customer, Cart cart) {
+        List<String> lines = new ArrayList<>();
+        for (CartItem item : cart.getItems()) {
+            lines.add(item.product.getName().toLowerCase(Locale.ROOT) + "\t" + item.quantity);
+        }
+        Collections.sort(lines);
+        return customer.getName().toLowerCase(Locale.ROOT) + "\n" + String.join("\n", lines);
+    }
+    
+    // Only validation failures are safe to re-run; anything later may have moved stock or money
+    private boolean isRejectedBeforeProcessing(Throwable t) {
+        return t instanceof EmptyCartException || t instanceof OutOfStockException
+                || t instanceof ExpiredProductException || t instanceof InsufficientBalanceException;
+    }
+    
+    public Receipt checkout(Customer customer, Cart cart) {
         validateCheckout(customer, cart);
         
         double subtotal = calculateSubtotal(cart);
@@ -22,7 +66,7 @@ public class CheckoutService {
             throw new InsufficientBalanceException("Insufficient balance. Required: $" + total + ", Available: $" + customer.getBalance());
         }
         
-        processOrder(customer, cart, subtotal, shipping, total);
+        return processOrder(customer, cart, subtotal, shipping, total);
     }
     
     private void validateCheckout(Customer customer, Cart cart) {
@@ -56,18 +100,41 @@ public class CheckoutService {
         return hasShippableItems ? SHIPPING_FEE : 0.0;
     }
     
-    private void processOrder(Customer customer, Cart cart, double subtotal, double shipping, double total) {
+    private Receipt processOrder(Customer customer, Cart cart, double subtotal, double shipping, double total) {
         List<Shippable> shippableItems = collectShippableItems(cart);
         
-        updateProductStock(cart);
-        customer.deduct(total);
+        if (changeLog != null) {
+            changeLog.beginBatch();
+        }
+        try {
+            updateProductStock(cart);
+            customer.deduct(total);
+            if (changeLog != null) {
+                changeLog.append(ChangeLog.record(ChangeLog.BALANCE, customer.getName(), -total),
+                        ChangeLog.record(ChangeLog.CHECKOUT, customer.getName(), total));
+            }
+        } finally {
+            if (changeLog != null) {
+                changeLog.commitBatch();
+            }
+        }
         
         if (!shippableItems.isEmpty()) {
-            shippingService.ship(shippableItems);
+            if (shipmentScheduler != null) {
+                shipmentScheduler.submit(destinationOf(customer), shippableItems);
+            } else {
+                shippingService.ship(shippableItems);
+            }
         }
         
-        printReceipt(cart, subtotal, shipping, total, customer);
+        Receipt receipt = new Receipt(cart.getItems(), subtotal, shipping, total, customer.getBalance());
+        printReceipt(receipt);
         cart.clear();
+        return receipt;
+    }
+    
+    private String destinationOf(Customer customer) {
+        return customer.getAddress() != null ? customer.getAddress() : customer.getName();
     }
     
     private List<Shippable> collectShippableItems(Cart cart) {
@@ -91,16 +158,16 @@ public class CheckoutService {
         }
     }
     
-    private void printReceipt(Cart cart, double subtotal, double shipping, double total, Customer customer) {
+    private void printReceipt(Receipt receipt) {
         System.out.println("\n** Checkout Receipt **");
-        for (CartItem item : cart.getItems()) {
+        for (CartItem item : receipt.getItems()) {
             System.out.printf("%dx %s $%.0f\n", 
                 item.quantity, item.product.getName(), item.product.getPrice() * item.quantity);
         }
         System.out.println("----------------------");
-        System.out.printf("Subtotal %.0f\n", subtotal);
-        System.out.printf("Shipping %.0f\n", shipping);
-        System.out.printf("Amount %.0f\n", total);
-        System.out.printf("Customer balance: %.0f\n", customer.getBalance());
+        System.out.printf("Subtotal %.0f\n", receipt.getSubtotal());
+        System.out.printf("Shipping %.0f\n", receipt.getShipping());
+        System.out.printf("Amount %.0f\n", receipt.getTotal());
+        System.out.printf("Customer balance: %.0f\n", receipt.getCustomerBalance());
     }
 } 
\ No newline at end of file
@@ -3,12 +3,21 @@ import java.util.List;
 
 public class CustomerService {
     private List<Customer> customers = new ArrayList<>();
+    private ChangeLog changeLog;
+    
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
     
     public void addCustomer(Customer customer) {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null");
         }
         customers.add(customer);
+        if (changeLog != null) {
+            changeLog.append(ChangeLog.record(ChangeLog.CUSTOMER_ADDED, customer.getName(), customer.getBalance(),
+                    customer.getAddress()));
+        }
     }
     
     public Customer findCustomerByName(String name) {
@@ -35,6 +44,9 @@ public class CustomerService {
             throw new IllegalArgumentException("Amount must be positive");
         }
         customer.addBalance(amount);
+        if (changeLog != null) {
+            changeLog.append(ChangeLog.record(ChangeLog.BALANCE, customer.getName(), amount));
+        }
         System.out.printf("Added $%.2f to %s's balance\n", amount, customer.getName());
     }
     
@@ -0,0 +1,133 @@
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-expiring store of recent checkout results keyed by idempotency key.
+ * Each key is bound to a request fingerprint; retries of the same request get the stored
+ * result, and a running checkout is never evicted, so the bound may briefly be exceeded.
+ * Completed entries are queued in expiry order, so eviction only looks at the head.
+ */
+public class IdempotencyCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> expiryOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IdempotencyCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("Max entries and TTL must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns the stored result for key, or runs checkout and stores its outcome.
+     * Failures are stored too, unless safeToRetry says nothing had changed yet.
+     */
+    public Receipt getOrCompute(String key, String fingerprint, Supplier<Receipt> checkout,
+                                Predicate<Throwable> safeToRetry) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Idempotency key cannot be empty");
+        }
+        long now = System.nanoTime();
+        Entry existing = entries.get(key);
+        if (existing == null || existing.isExpired(now)) {
+            Entry fresh = new Entry(key, fingerprint);
+            existing = entries.putIfAbsent(key, fresh);
+            while (existing != null && existing.isExpired(now)) {
+                entries.remove(key, existing);
+                existing = entries.putIfAbsent(key, fresh);
+            }
+            if (existing == null) {
+                misses.incrementAndGet();
+                return compute(fresh, checkout, safeToRetry);
+            }
+        }
+        if (!existing.fingerprint.equals(fingerprint)) {
+            throw new IllegalArgumentException("Idempotency key '" + key + "' was already used for a different request");
+        }
+        hits.incrementAndGet();
+        return await(existing);
+    }
+
+    private Receipt compute(Entry entry, Supplier<Receipt> checkout, Predicate<Throwable> safeToRetry) {
+        try {
+            Receipt receipt = checkout.get();
+            entry.result.complete(receipt);
+            store(entry);
+            return receipt;
+        } catch (Throwable t) {
+            if (safeToRetry.test(t)) {
+                entries.remove(entry.key, entry);
+            } else {
+                store(entry);
+            }
+            entry.result.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    private void store(Entry entry) {
+        long now = System.nanoTime();
+        entry.expiresAt = now + ttlNanos;
+        entry.stored = true;
+        expiryOrder.add(entry);
+        evict(now);
+    }
+
+    private Receipt await(Entry entry) {
+        try {
+            return entry.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for checkout " + entry.key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void evict(long now) {
+        Entry head;
+        while ((head = expiryOrder.peek()) != null
+                && (entries.size() > maxEntries || head.isExpired(now) || entries.get(head.key) != head)) {
+            if (expiryOrder.remove(head) && entries.remove(head.key, head)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public int size() { return entries.size(); }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    private static class Entry {
+        final String key;
+        final String fingerprint;
+        final CompletableFuture<Receipt> result = new CompletableFuture<>();
+        // Set once the checkout finishes; a running checkout never expires
+        volatile long expiresAt;
+        volatile boolean stored;
+
+        Entry(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now) { return stored && now - expiresAt >= 0; }
+    }
+}
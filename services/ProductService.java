@@ -4,12 +4,24 @@ import java.util.List;
 
 public class ProductService {
     private List<Product> products = new ArrayList<>();
+    private ChangeLog changeLog;
+    
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
     
     public void addProduct(Product product) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
         products.add(product);
+        if (changeLog != null) {
+            LocalDate expiryDate = product instanceof ExpirableProduct
+                    ? ((ExpirableProduct) product).getExpiryDate() : null;
+            changeLog.append(ChangeLog.record(ChangeLog.PRODUCT_ADDED, product.getName(), product.getPrice(),
+                    product.getQuantity(), product.isShippable(), product.getWeight(),
+                    expiryDate));
+        }
     }
     
     public Product findProductByName(String name) {
@@ -36,6 +48,9 @@ public class ProductService {
         Product product = findProductByName(name);
         if (product != null) {
             product.reduceQuantity(quantity);
+            if (changeLog != null) {
+                changeLog.append(ChangeLog.record(ChangeLog.STOCK, product.getName(), -quantity));
+            }
         }
     }
     
@@ -0,0 +1,139 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ships a ChangeLog to one standby at a time over a localhost socket. The handshake is
+ * the log id, answered by the standby's resume offset; new bytes then go out in batches
+ * with FileChannel.transferTo.
+ */
+public class ReplicationPrimary implements Closeable {
+    private static final long IDLE_WAIT_MILLIS = 50;
+
+    private final ChangeLog changeLog;
+    private final ServerSocketChannel server;
+    private final Thread shipper;
+    private volatile boolean running = true;
+    private volatile long shippedPosition;
+
+    private final AtomicLong bytesShipped = new AtomicLong();
+    private final AtomicLong batchesShipped = new AtomicLong();
+    private final AtomicLong shippingNanos = new AtomicLong();
+
+    public ReplicationPrimary(ChangeLog changeLog, int port) throws IOException {
+        this.changeLog = changeLog;
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", port));
+        this.shipper = new Thread(this::serve, "replication-primary");
+        shipper.setDaemon(true);
+        shipper.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    private void serve() {
+        while (running) {
+            try (SocketChannel standby = server.accept();
+                 FileChannel log = FileChannel.open(changeLog.getPath(), StandardOpenOption.READ)) {
+                System.out.println("Standby connected from " + standby.getRemoteAddress());
+                sendLogId(standby);
+                shippedPosition = readResumeOffset(standby);
+                ship(log, standby);
+            } catch (IOException | UncheckedIOException e) {
+                if (running) {
+                    System.out.println("Replication stream lost: " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void sendLogId(SocketChannel standby) throws IOException {
+        byte[] id = changeLog.getLogId().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer handshake = ByteBuffer.allocate(Integer.BYTES + id.length);
+        handshake.putInt(id.length).put(id).flip();
+        while (handshake.hasRemaining()) {
+            standby.write(handshake);
+        }
+    }
+
+    private long readResumeOffset(SocketChannel standby) throws IOException {
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+        while (offset.hasRemaining()) {
+            if (standby.read(offset) < 0) {
+                throw new IOException("Standby closed before sending its offset");
+            }
+        }
+        offset.flip();
+        long position = offset.getLong();
+        if (position < 0 || position > changeLog.size()) {
+            throw new IOException("Standby offset " + position + " is outside the change log");
+        }
+        return position;
+    }
+
+    private void ship(FileChannel log, SocketChannel standby) throws IOException, InterruptedException {
+        while (running) {
+            long end = changeLog.size();
+            if (shippedPosition >= end) {
+                changeLog.awaitAppend(shippedPosition, IDLE_WAIT_MILLIS);
+                continue;
+            }
+            long start = System.nanoTime();
+            long position = shippedPosition;
+            while (position < end) {
+                position += log.transferTo(position, end - position, standby);
+            }
+            shippingNanos.addAndGet(System.nanoTime() - start);
+            bytesShipped.addAndGet(position - shippedPosition);
+            batchesShipped.incrementAndGet();
+            shippedPosition = position;
+        }
+    }
+
+    /** Bytes committed locally but not yet handed to the standby's socket. */
+    public long getLagBytes() {
+        return Math.max(0, changeLog.size() - shippedPosition);
+    }
+
+    public long getBytesShipped() { return bytesShipped.get(); }
+    public long getBatchesShipped() { return batchesShipped.get(); }
+
+    public double getMegabytesPerSecond() {
+        long nanos = shippingNanos.get();
+        return nanos == 0 ? 0.0 : bytesShipped.get() / 1_048_576.0 / (nanos / 1_000_000_000.0);
+    }
+
+    public void displayStats() {
+        System.out.println("\n=== Replication Primary ===");
+        System.out.println("Batches shipped: " + getBatchesShipped());
+        System.out.println("Bytes shipped: " + getBytesShipped());
+        System.out.println("Lag: " + getLagBytes() + " bytes");
+        System.out.printf("Throughput: %.1f MB/s\n", getMegabytesPerSecond());
+        System.out.println();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        shipper.interrupt();
+        try {
+            shipper.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warm standby that follows a ReplicationPrimary and applies each commit of its change log
+ * as a whole. It stops following, with getFailure() saying why, if the log id changes or
+ * a commit cannot be applied; promote() stops it and hands over the services.
+ */
+public class ReplicationStandby implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProductService productService;
+    private final CustomerService customerService;
+    private final Thread follower;
+    private volatile SocketChannel channel;
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private volatile String logId;
+    private volatile String failure;
+
+    private final List<String[]> pendingCommit = new ArrayList<>();
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private long lineStartOffset;
+    private volatile long appliedOffset;
+
+    private final AtomicLong commitsApplied = new AtomicLong();
+    private final AtomicLong checkoutsApplied = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private final AtomicLong applyNanos = new AtomicLong();
+    private volatile long lastLagMillis;
+
+    public ReplicationStandby(ProductService productService, CustomerService customerService,
+                              String host, int port) {
+        this.productService = productService;
+        this.customerService = customerService;
+        this.follower = new Thread(() -> follow(host, port), "replication-standby");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    private void follow(String host, int port) {
+        while (running) {
+            try (SocketChannel socket = SocketChannel.open(new InetSocketAddress(host, port))) {
+                channel = socket;
+                connected = true;
+                if (!acceptLogId(readLogId(socket))) return;
+                sendOffset(socket);
+                receive(socket);
+            } catch (IOException e) {
+                if (!running) return;
+            } catch (RuntimeException e) {
+                fail("Cannot apply change log after offset " + appliedOffset + ": " + e);
+                return;
+            } finally {
+                connected = false;
+            }
+            // Drop anything after the last whole commit and ask for it again on reconnect
+            pendingCommit.clear();
+            partialLine.reset();
+            lineStartOffset = appliedOffset;
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private String readLogId(SocketChannel socket) throws IOException {
+        ByteBuffer length = readFully(socket, Integer.BYTES);
+        ByteBuffer id = readFully(socket, length.getInt());
+        return StandardCharsets.UTF_8.decode(id).toString();
+    }
+
+    private ByteBuffer readFully(SocketChannel socket, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (socket.read(buffer) < 0) {
+                throw new IOException("Primary closed during handshake");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private boolean acceptLogId(String primaryLogId) {
+        if (logId == null) {
+            logId = primaryLogId;
+            return true;
+        }
+        if (!logId.equals(primaryLogId)) {
+            fail("Primary is serving change log " + primaryLogId + " but this standby followed " + logId);
+            return false;
+        }
+        return true;
+    }
+
+    private void fail(String reason) {
+        failure = reason;
+        running = false;
+        System.out.println("Standby stopped following: " + reason);
+    }
+
+    private void sendOffset(SocketChannel socket) throws IOException {
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+        offset.putLong(appliedOffset).flip();
+        while (offset.hasRemaining()) {
+            socket.write(offset);
+        }
+    }
+
+    private void receive(SocketChannel socket) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (running && socket.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b != '\n') {
+                    partialLine.write(b);
+                    continue;
+                }
+                lineStartOffset += partialLine.size() + 1;
+                String line = new String(partialLine.toByteArray(), StandardCharsets.UTF_8);
+                partialLine.reset();
+                onRecord(ChangeLog.parse(line));
+            }
+            buffer.clear();
+        }
+    }
+
+    private void onRecord(String[] fields) {
+        if (!ChangeLog.COMMIT.equals(fields[0])) {
+            pendingCommit.add(fields);
+            return;
+        }
+        long start = System.nanoTime();
+        List<Runnable> changes = new ArrayList<>(pendingCommit.size());
+        for (String[] record : pendingCommit) {
+            changes.add(decode(record));
+        }
+        for (Runnable change : changes) {
+            change.run();
+        }
+        pendingCommit.clear();
+        appliedOffset = lineStartOffset;
+        applyNanos.addAndGet(System.nanoTime() - start);
+        commitsApplied.incrementAndGet();
+
+        long lag = Math.max(0, System.currentTimeMillis() - Long.parseLong(fields[2]));
+        lastLagMillis = lag;
+        totalLagMillis.addAndGet(lag);
+    }
+
+    private Runnable decode(String[] record) {
+        switch (record[0]) {
+            case ChangeLog.LOG:
+                if (!record[1].equals(logId)) {
+                    throw new IllegalStateException("Change log id " + record[1] + " does not match " + logId);
+                }
+                return () -> { };
+            case ChangeLog.PRODUCT_ADDED: {
+                Product product = decodeProduct(record);
+                return () -> productService.addProduct(product);
+            }
+            case ChangeLog.CUSTOMER_ADDED: {
+                Customer customer = new Customer(record[1], Double.parseDouble(record[2]), record[3]);
+                return () -> customerService.addCustomer(customer);
+            }
+            case ChangeLog.STOCK: {
+                int delta = Integer.parseInt(record[2]);
+                return onProduct(record[1], product -> product.reduceQuantity(-delta));
+            }
+            case ChangeLog.BALANCE: {
+                double delta = Double.parseDouble(record[2]);
+                return onCustomer(record[1], customer -> customer.addBalance(delta));
+            }
+            case ChangeLog.CHECKOUT:
+                return checkoutsApplied::incrementAndGet;
+            default:
+                throw new IllegalStateException("Unknown change log record " + record[0]);
+        }
+    }
+
+    private Runnable onProduct(String name, Consumer<Product> change) {
+        return () -> {
+            Product product = productService.findProductByName(name);
+            if (product == null) {
+                throw new IllegalStateException("Change log refers to unknown product " + name);
+            }
+            change.accept(product);
+        };
+    }
+
+    private Runnable onCustomer(String name, Consumer<Customer> change) {
+        return () -> {
+            Customer customer = customerService.findCustomerByName(name);
+            if (customer == null) {
+                throw new IllegalStateException("Change log refers to unknown customer " + name);
+            }
+            change.accept(customer);
+        };
+    }
+
+    private Product decodeProduct(String[] record) {
+        String name = record[1];
+        double price = Double.parseDouble(record[2]);
+        int quantity = Integer.parseInt(record[3]);
+        boolean shippable = Boolean.parseBoolean(record[4]);
+        double weight = Double.parseDouble(record[5]);
+        if (record[6] == null) {
+            return new NonExpirableProduct(name, price, quantity, shippable, weight);
+        }
+        return new ExpirableProduct(name, price, quantity, LocalDate.parse(record[6]), shippable, weight);
+    }
+
+    /** Stops following the primary; the services hold every commit received so far. */
+    public void promote() {
+        running = false;
+        SocketChannel socket = channel;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        follower.interrupt();
+        try {
+            follower.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isConnected() { return connected; }
+    public String getLogId() { return logId; }
+    /** Why the standby stopped following, or null while it is healthy. */
+    public String getFailure() { return failure; }
+    public long getAppliedOffset() { return appliedOffset; }
+    public long getCommitsApplied() { return commitsApplied.get(); }
+    public long getCheckoutsApplied() { return checkoutsApplied.get(); }
+    public long getLastLagMillis() { return lastLagMillis; }
+
+    public double getAverageLagMillis() {
+        long commits = commitsApplied.get();
+        return commits == 0 ? 0.0 : (double) totalLagMillis.get() / commits;
+    }
+
+    /** Commits per second of time spent applying, i.e. how fast the standby can keep up. */
+    public double getCommitsPerSecond() {
+        long nanos = applyNanos.get();
+        return nanos == 0 ? 0.0 : commitsApplied.get() * 1_000_000_000.0 / nanos;
+    }
+
+    public void displayStats() {
+        System.out.println("\n=== Replication Standby ===");
+        System.out.println("Connected: " + isConnected());
+        if (failure != null) {
+            System.out.println("Stopped: " + failure);
+        }
+        System.out.println("Commits applied: " + getCommitsApplied());
+        System.out.println("Checkouts applied: " + getCheckoutsApplied());
+        System.out.println("Applied offset: " + getAppliedOffset() + " bytes");
+        System.out.printf("Replication lag: %d ms (avg %.1f ms)\n", getLastLagMillis(), getAverageLagMillis());
+        System.out.printf("Throughput: %.0f commits/s\n", getCommitsPerSecond());
+        System.out.println();
+    }
+
+    @Override
+    public void close() {
+        promote();
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects shippable items from many orders and ships them in consolidated parcels.
+ * Orders are queued without blocking the checkout thread and flushed when the time
+ * window elapses or the batch size is reached. Each flush groups the pending items
+ * by destination and packs them first-fit-decreasing into parcels under maxParcelWeight.
+ * After shutdown, submitted orders are shipped straight away on the caller's thread.
+ */
+public class ShipmentScheduler {
+    private final double maxParcelWeight;
+    private final int maxBatchSize;
+    private final ConcurrentLinkedQueue<PendingOrder> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    private long ordersShipped;
+    private long itemsShipped;
+    private long parcelsShipped;
+    private long flushNanos;
+
+    public ShipmentScheduler(double maxParcelWeight, long windowMillis, int maxBatchSize) {
+        if (maxParcelWeight <= 0) {
+            throw new IllegalArgumentException("Max parcel weight must be positive");
+        }
+        if (windowMillis <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Window and batch size must be positive");
+        }
+        this.maxParcelWeight = maxParcelWeight;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shipment-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::backgroundFlush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void submit(String destination, List<Shippable> items) {
+        if (destination == null) {
+            throw new IllegalArgumentException("Destination cannot be null");
+        }
+        if (items.isEmpty()) return;
+        pending.add(new PendingOrder(destination, new ArrayList<>(items)));
+        if (pendingCount.incrementAndGet() >= maxBatchSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::backgroundFlush);
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+        // Checked after enqueueing so an order racing shutdown's final flush is never stranded
+        if (closed.get()) {
+            flush();
+        }
+    }
+
+    private void backgroundFlush() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Swallowed so a failed flush does not cancel the time window for good
+            System.out.println("Shipment flush failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized List<Parcel> flush() {
+        long start = System.nanoTime();
+        Map<String, List<Shippable>> byDestination = new LinkedHashMap<>();
+        int orders = 0;
+        PendingOrder order;
+        while ((order = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            byDestination.computeIfAbsent(order.destination, d -> new ArrayList<>()).addAll(order.items);
+            orders++;
+        }
+
+        List<Parcel> parcels = new ArrayList<>();
+        int items = 0;
+        for (Map.Entry<String, List<Shippable>> entry : byDestination.entrySet()) {
+            parcels.addAll(pack(entry.getKey(), entry.getValue()));
+            items += entry.getValue().size();
+        }
+        for (Parcel parcel : parcels) {
+            ShippingService.shipParcel(parcel);
+        }
+        flushNanos += System.nanoTime() - start;
+        ordersShipped += orders;
+        itemsShipped += items;
+        parcelsShipped += parcels.size();
+        return parcels;
+    }
+
+    private List<Parcel> pack(String destination, List<Shippable> items) {
+        items.sort(Comparator.comparingDouble(Shippable::getWeight).reversed());
+        List<Parcel> parcels = new ArrayList<>();
+        for (Shippable item : items) {
+            Parcel target = null;
+            for (Parcel parcel : parcels) {
+                if (parcel.fits(item)) {
+                    target = parcel;
+                    break;
+                }
+            }
+            if (target == null) {
+                // Items heavier than the limit still go out, alone in their own parcel
+                target = new Parcel(destination, maxParcelWeight);
+                parcels.add(target);
+            }
+            target.add(item);
+        }
+        return parcels;
+    }
+
+    public void shutdown() {
+        closed.set(true);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public synchronized long getParcelsSaved() {
+        return Math.max(0, ordersShipped - parcelsShipped);
+    }
+
+    public synchronized long getOrdersShipped() {
+        return ordersShipped;
+    }
+
+    public int getPendingOrders() {
+        return pendingCount.get();
+    }
+
+    public synchronized double getItemsPerSecond() {
+        return flushNanos == 0 ? 0.0 : itemsShipped * 1_000_000_000.0 / flushNanos;
+    }
+
+    public synchronized void displayStats() {
+        System.out.println("\n=== Shipment Scheduler ===");
+        System.out.println("Orders shipped: " + ordersShipped);
+        System.out.println("Items shipped: " + itemsShipped);
+        System.out.println("Parcels shipped: " + parcelsShipped);
+        System.out.println("Parcels saved: " + getParcelsSaved());
+        System.out.printf("Throughput: %.0f items/s\n", getItemsPerSecond());
+        System.out.println();
+    }
+
+    private static class PendingOrder {
+        final String destination;
+        final List<Shippable> items;
+
+        PendingOrder(String destination, List<Shippable> items) {
+            this.destination = destination;
+            this.items = items;
+        }
+    }
+}
@@ -4,6 +4,16 @@ public class ShippingService {
     public static void ship(List<Shippable> items) {
         if (items.isEmpty()) return;
         System.out.println("** Shipment notice **");
+        printItems(items);
+    }
+
+    public static void shipParcel(Parcel parcel) {
+        if (parcel.getItems().isEmpty()) return;
+        System.out.println("** Shipment notice ** -> " + parcel.getDestination());
+        printItems(parcel.getItems());
+    }
+
+    private static void printItems(List<Shippable> items) {
         double totalWeight = 0.0;
         Map<String, Integer> nameCount = new LinkedHashMap<>();
         Map<String, Double> nameWeight = new HashMap<>();
@@ -19,4 +29,4 @@ public class ShippingService {
         }
         System.out.printf("Total package weight %.1fkg\n", totalWeight);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * Runs one side of a primary/standby pair so replication can be exercised across two JVMs:
+ *   java ReplicationNode primary 7070 changes.log 2000
+ *   java ReplicationNode standby 7070
+ * The primary seeds the demo data and runs the given number of checkouts; the standby
+ * follows it and takes over once the primary goes away. The log file is overwritten.
+ */
+public class ReplicationNode {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java ReplicationNode primary <port> <log file> [checkouts]");
+            System.out.println("       (the log file is overwritten)");
+            System.out.println("       java ReplicationNode standby <port>");
+            return;
+        }
+        int port = Integer.parseInt(args[1]);
+        if ("primary".equals(args[0])) {
+            Path log = Paths.get(args.length > 2 ? args[2] : "changes.log");
+            int checkouts = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+            runPrimary(port, log, checkouts);
+        } else {
+            runStandby(port);
+        }
+    }
+
+    private static void runPrimary(int port, Path logPath, int checkouts) throws Exception {
+        try (ChangeLog changeLog = new ChangeLog(logPath);
+             ReplicationPrimary primary = new ReplicationPrimary(changeLog, port)) {
+            ProductService productService = new ProductService();
+            CustomerService customerService = new CustomerService();
+            productService.setChangeLog(changeLog);
+            customerService.setChangeLog(changeLog);
+            CheckoutService checkoutService = new CheckoutService(productService, new ShippingService());
+            checkoutService.setChangeLog(changeLog);
+
+            productService.addProduct(new ExpirableProduct("Cheese", 100, checkouts, LocalDate.now().plusDays(2), false, 0.4));
+            productService.addProduct(new NonExpirableProduct("Mobile scratch card", 50, checkouts, false, 0.0));
+            Customer ali = new Customer("Ali", 200.0 * checkouts);
+            customerService.addCustomer(ali);
+
+            System.out.println("Primary listening on port " + primary.getPort() + ", waiting 5s for a standby...");
+            Thread.sleep(5000);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < checkouts; i++) {
+                Cart cart = new Cart();
+                cart.add(productService.findProductByName("Cheese"), 1);
+                cart.add(productService.findProductByName("Mobile scratch card"), 1);
+                checkoutService.checkout(ali, cart);
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            Thread.sleep(500);
+
+            System.out.printf("\n%d checkouts in %.2fs (%.0f checkouts/s)\n", checkouts, seconds, checkouts / seconds);
+            primary.displayStats();
+            customerService.displayCustomerInfo(ali);
+            productService.displayAllProducts();
+        }
+    }
+
+    private static void runStandby(int port) throws Exception {
+        ProductService productService = new ProductService();
+        CustomerService customerService = new CustomerService();
+        ReplicationStandby standby = new ReplicationStandby(productService, customerService, "127.0.0.1", port);
+
+        // Follow until the primary has been gone for a couple of seconds, then take over
+        int missed = 0;
+        boolean seenPrimary = false;
+        while (missed < 10) {
+            Thread.sleep(200);
+            seenPrimary |= standby.isConnected();
+            missed = seenPrimary && !standby.isConnected() ? missed + 1 : 0;
+        }
+        standby.promote();
+        System.out.println("Primary gone, standby taking over");
+        standby.displayStats();
+        customerService.displayCustomerInfo(customerService.findCustomerByName("Ali"));
+        productService.displayAllProducts();
+    }
+}
@@ -1,5 +1,11 @@
 /*only this test file  created by AI agent to test multiple scenarios for the e-commerce system */  
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 public class TestRunner {
     private ProductService productService;
@@ -52,6 +58,10 @@ public class TestRunner {
         test8_MultipleCustomers();
         test9_AddBalance();
         test10_ComplexOrder();
+        test11_ShipmentConsolidation();
+        test12_IdempotentCheckout();
+        test13_WarmStandbyReplication();
+        test14_IdempotencyInFlightRetry();
         
         System.out.println("=== ALL TESTS COMPLETED ===");
     }
@@ -209,6 +219,213 @@ public class TestRunner {
         }
     }
     
+    private void test11_ShipmentConsolidation() {
+        System.out.println("\nTest 11: Shipment Consolidation");
+        System.out.println("===============================");
+        
+        ProductService warehouse = new ProductService();
+        warehouse.addProduct(new NonExpirableProduct("Book", 20, 50, true, 0.8));
+        warehouse.addProduct(new NonExpirableProduct("Kettle", 40, 50, true, 1.5));
+        ShipmentScheduler scheduler = new ShipmentScheduler(5.0, 60_000, 100);
+        CheckoutService batchedCheckout = new CheckoutService(warehouse, shippingService, scheduler);
+        CartService batchedCarts = new CartService(warehouse);
+        
+        String[] addresses = {"Cairo", "Cairo", "Cairo", "Giza", "Giza"};
+        try {
+            for (int i = 0; i < addresses.length; i++) {
+                Customer customer = new Customer("Buyer" + i, 1000, addresses[i]);
+                Cart cart = new Cart();
+                batchedCarts.addToCart(cart, "Book", 2);
+                batchedCarts.addToCart(cart, "Kettle", 1);
+                batchedCheckout.checkout(customer, cart);
+            }
+            scheduler.flush();
+            scheduler.displayStats();
+            
+            long shippedBeforeShutdown = scheduler.getOrdersShipped();
+            scheduler.shutdown();
+            Customer late = new Customer("LateBuyer", 1000, "Cairo");
+            Cart lateCart = new Cart();
+            batchedCarts.addToCart(lateCart, "Book", 1);
+            batchedCheckout.checkout(late, lateCart);
+            System.out.println("Checkout after shutdown shipped directly: "
+                    + (scheduler.getOrdersShipped() == shippedBeforeShutdown + 1 && scheduler.getPendingOrders() == 0));
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+    
+    private void test12_IdempotentCheckout() {
+        System.out.println("\nTest 12: Idempotent Checkout Retry");
+        System.out.println("==================================");
+        
+        ProductService warehouse = new ProductService();
+        warehouse.addProduct(new NonExpirableProduct("Headphones", 200, 5, false, 0.0));
+        IdempotencyCache cache = new IdempotencyCache(1000, 10, TimeUnit.MINUTES);
+        CheckoutService idempotentCheckout = new CheckoutService(warehouse, shippingService, null, cache);
+        CartService carts = new CartService(warehouse);
+        Customer customer = new Customer("Retrier", 1000);
+        
+        try {
+            Cart cart = new Cart();
+            carts.addToCart(cart, "Headphones", 2);
+            Receipt first = idempotentCheckout.checkout("order-42", customer, cart);
+            
+            // The client resends the same request after a timeout
+            Cart resent = new Cart();
+            carts.addToCart(resent, "headphones", 2);
+            Receipt retry = idempotentCheckout.checkout("order-42", new Customer("retrier", 1000), resent);
+            
+            System.out.println("Same receipt returned: " + (first == retry));
+            System.out.printf("Customer balance: %.0f (charged once)\n", customer.getBalance());
+            System.out.println("Headphones left: " + warehouse.findProductByName("Headphones").getQuantity());
+            System.out.println("Cache hits: " + cache.getHits() + ", misses: " + cache.getMisses());
+            
+            try {
+                idempotentCheckout.checkout("order-42", new Customer("Intruder", 1000), resent);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Expected Error: " + e.getMessage());
+            }
+            
+            Cart differentCart = new Cart();
+            carts.addToCart(differentCart, "Headphones", 1);
+            try {
+                idempotentCheckout.checkout("order-42", customer, differentCart);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Expected Error: " + e.getMessage());
+            }
+            System.out.printf("Customer balance: %.0f (unchanged by rejected reuse)\n", customer.getBalance());
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
+    private void test13_WarmStandbyReplication() {
+        System.out.println("\nTest 13: Warm Standby Replication");
+        System.out.println("=================================");
+        
+        ProductService primaryProducts = new ProductService();
+        CustomerService primaryCustomers = new CustomerService();
+        ProductService standbyProducts = new ProductService();
+        CustomerService standbyCustomers = new CustomerService();
+        
+        try {
+            Path logFile = Files.createTempFile("changes", ".log");
+            Path restartedLogFile = Files.createTempFile("changes", ".log");
+            ChangeLog changeLog = new ChangeLog(logFile);
+            ReplicationPrimary primary = new ReplicationPrimary(changeLog, 0);
+            int port = primary.getPort();
+            ReplicationStandby standby = new ReplicationStandby(standbyProducts, standbyCustomers, "127.0.0.1", port);
+            try {
+                primaryProducts.setChangeLog(changeLog);
+                primaryCustomers.setChangeLog(changeLog);
+                CheckoutService replicatedCheckout = new CheckoutService(primaryProducts, shippingService);
+                replicatedCheckout.setChangeLog(changeLog);
+                
+                primaryProducts.addProduct(new ExpirableProduct("Yogurt", 30, 10, LocalDate.now().plusDays(3), false, 0.2));
+                Customer mona = new Customer("Mona", 500, "12\tNile St\nAlexandria");
+                primaryCustomers.addCustomer(mona);
+                primaryCustomers.addCustomer(new Customer("Omar", 100, "-"));
+                primaryCustomers.addBalance(mona, 100);
+                
+                Cart cart = new Cart();
+                new CartService(primaryProducts).addToCart(cart, "Yogurt", 4);
+                replicatedCheckout.checkout(mona, cart);
+                
+                long deadline = System.currentTimeMillis() + 5000;
+                while (standby.getAppliedOffset() < changeLog.size() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                
+                Customer replica = standbyCustomers.findCustomerByName("Mona");
+                System.out.println("Standby caught up: " + (standby.getAppliedOffset() == changeLog.size()));
+                System.out.printf("Standby balance: %.0f (primary %.0f)\n", replica.getBalance(), mona.getBalance());
+                System.out.println("Standby Yogurt stock: " + standbyProducts.findProductByName("Yogurt").getQuantity());
+                System.out.println("Addresses replicated intact: " + (mona.getAddress().equals(replica.getAddress())
+                        && "-".equals(standbyCustomers.findCustomerByName("Omar").getAddress())));
+                standby.displayStats();
+                primary.displayStats();
+                
+                // The primary restarts on the same port with a fresh log; the standby must refuse it
+                primary.close();
+                changeLog.close();
+                try (ChangeLog restartedLog = new ChangeLog(restartedLogFile);
+                     ReplicationPrimary restarted = new ReplicationPrimary(restartedLog, port)) {
+                    deadline = System.currentTimeMillis() + 5000;
+                    while (standby.getFailure() == null && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(10);
+                    }
+                    System.out.println("Standby refused restarted primary: "
+                            + (restarted.getPort() == port && standby.getFailure() != null));
+                }
+            } finally {
+                standby.close();
+                primary.close();
+                changeLog.close();
+                Files.deleteIfExists(logFile);
+                Files.deleteIfExists(restartedLogFile);
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
+    private void test14_IdempotencyInFlightRetry() {
+        System.out.println("\nTest 14: Idempotency In-Flight Retry");
+        System.out.println("====================================");
+        
+        IdempotencyCache cache = new IdempotencyCache(1, 10, TimeUnit.MINUTES);
+        Receipt receipt = new Receipt(new ArrayList<>(), 50, 0, 50, 950);
+        AtomicInteger runsOfA = new AtomicInteger();
+        CountDownLatch aStarted = new CountDownLatch(1);
+        CountDownLatch releaseA = new CountDownLatch(1);
+        
+        try {
+            Thread first = new Thread(() -> cache.getOrCompute("A", "Ali", () -> {
+                runsOfA.incrementAndGet();
+                aStarted.countDown();
+                try {
+                    releaseA.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return receipt;
+            }, t -> false));
+            first.start();
+            aStarted.await();
+            
+            // B pushes the cache over its bound while A is still running
+            cache.getOrCompute("B", "Sarah", () -> receipt, t -> false);
+            Thread retry = new Thread(() -> cache.getOrCompute("A", "Ali", () -> {
+                runsOfA.incrementAndGet();
+                return receipt;
+            }, t -> false));
+            retry.start();
+            releaseA.countDown();
+            first.join();
+            retry.join();
+            System.out.println("Checkout A ran once: " + (runsOfA.get() == 1));
+            
+            // A failure after side effects is remembered, not re-run
+            AtomicInteger charges = new AtomicInteger();
+            for (int i = 0; i < 2; i++) {
+                try {
+                    cache.getOrCompute("C", "Ali", () -> {
+                        charges.incrementAndGet();
+                        throw new IllegalStateException("failed after charging");
+                    }, t -> false);
+                } catch (IllegalStateException e) {
+                    System.out.println("Expected Error: " + e.getMessage());
+                }
+            }
+            System.out.println("Charged once: " + (charges.get() == 1));
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
     public static void main(String[] args) {
         TestRunner runner = new TestRunner();
         runner.runAllTests();